@@ -1,11 +1,14 @@
 package com.example.deltajava;
 
+import com.example.deltajava.util.FileNames;
+import com.example.deltajava.util.ParallelParquetWriter;
 import com.example.deltajava.util.ParquetUtil;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
@@ -54,6 +57,7 @@ public class DeltaTable {
     
     /**
      * Inserts records into the Delta table. Each record is a map of column names to values.
+     * Batches larger than a single data file are written through {@link #bulkInsert(List)}.
      *
      * @param records the records to insert
      * @return the number of records inserted
@@ -63,6 +67,9 @@ public class DeltaTable {
         if (records == null || records.isEmpty()) {
             return 0;
         }
+        if (records.size() > ParallelParquetWriter.DEFAULT_ROWS_PER_FILE) {
+            return bulkInsert(records);
+        }
        // Generate a unique file name
         String fileId = UUID.randomUUID().toString();
         long timestamp = Instant.now().toEpochMilli();
@@ -71,13 +78,106 @@ public class DeltaTable {
         // Create the full path to the data file
         Path dataFilePath = Paths.get(tablePath, "data", fileName);
         
-        // Write the records to a Parquet file
-        long fileSize = ParquetUtil.writeRecords(records, dataFilePath);
+        // Write the records to a temporary Parquet file and publish it once complete,
+        // so an interrupted write never leaves a partial data file behind
+        Path tempFilePath = dataFilePath.resolveSibling(FileNames.tempDataFile(fileName));
+        long fileSize = ParquetUtil.writeRecords(records, tempFilePath);
+        ParquetUtil.publish(tempFilePath);
         
 
         return records.size();
     }
     
+    /**
+     * Inserts a large batch of records into the Delta table. The batch is split into
+     * several data files which are written concurrently, one per available processor.
+     * The files are written under temporary names and published only once all of them
+     * are complete, so an insert that fails or dies while writing leaves no data files.
+     * Publishing renames the files one at a time, so it is not atomic: readers can see
+     * part of the batch while it is published, and a crash while publishing leaves
+     * part of the batch in the table.
+     *
+     * @param records the records to insert
+     * @return the number of records inserted
+     * @throws IOException if an I/O error occurs
+     */
+    public int bulkInsert(List<Map<String, String>> records) throws IOException {
+        if (records == null || records.isEmpty()) {
+            return 0;
+        }
+        
+        ParallelParquetWriter writer = new ParallelParquetWriter(
+                Runtime.getRuntime().availableProcessors(), ParallelParquetWriter.DEFAULT_ROWS_PER_FILE);
+        
+        // Write the records to Parquet files in the data directory
+        writer.write(records, Paths.get(tablePath, "data"));
+        
+        return records.size();
+    }
+    
+    /**
+     * Removes data files that are not part of the table and whose last modification
+     * is older than the retention period. The retention period protects writes that
+     * are still in progress, and must be at least {@link TableCleaner#MIN_RETENTION}.
+     *
+     * @param retention how long unreferenced files are kept
+     * @return the number of files deleted
+     * @throws IOException if an I/O error occurs
+     */
+    public int vacuum(Duration retention) throws IOException {
+        return vacuum(retention, true);
+    }
+    
+    /**
+     * Removes data files that are not part of the table and whose last modification
+     * is older than the retention period, optionally allowing a retention shorter
+     * than {@link TableCleaner#MIN_RETENTION}.
+     *
+     * @param retention how long unreferenced files are kept
+     * @param retentionCheckEnabled whether to reject retentions shorter than the minimum
+     * @return the number of files deleted
+     * @throws IOException if an I/O error occurs
+     */
+    public int vacuum(Duration retention, boolean retentionCheckEnabled) throws IOException {
+        try (TableCleaner cleaner = new TableCleaner(tablePath)) {
+            return cleaner.vacuum(retention, retentionCheckEnabled);
+        }
+    }
+    
+    /**
+     * Removes log files that are already covered by a checkpoint older than the
+     * retention period.
+     *
+     * @param retention how long log history is kept
+     * @return the number of files deleted
+     * @throws IOException if an I/O error occurs
+     */
+    public int expireLog(Duration retention) throws IOException {
+        try (TableCleaner cleaner = new TableCleaner(tablePath)) {
+            return cleaner.expireLog(retention);
+        }
+    }
+    
+    /**
+     * Starts running {@link #vacuum(Duration)} and {@link #expireLog(Duration)} in the
+     * background at a fixed interval. Closing the returned cleaner stops it.
+     *
+     * @param interval the delay between cleanup runs
+     * @param retention how long unreferenced files and log history are kept
+     * @return the running cleaner
+     */
+    public TableCleaner scheduleCleanup(Duration interval, Duration retention) {
+        TableCleaner cleaner = new TableCleaner(tablePath);
+        try {
+            cleaner.schedule(interval, retention);
+        } catch (RuntimeException e) {
+            // Release the worker threads of a cleaner that never started
+            cleaner.close();
+            throw e;
+        }
+        return cleaner;
+    }
+    
     /**
      * Reads all records from the Delta table.
      *
@@ -0,0 +1,469 @@
+package com.example.deltajava;
+
+import com.example.deltajava.util.FileNames;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Removes files a Delta table no longer needs.
+ * Directories are listed in pages of a fixed size, so memory use does not grow
+ * with the number of files, and each page is checked and deleted on a pool of
+ * worker threads. Deletes are rate limited to keep cleanup from competing with
+ * table reads and writes for disk I/O.
+ */
+public class TableCleaner implements AutoCloseable {
+
+    /**
+     * The default number of directory entries handed to a worker at once.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+
+    /**
+     * The default maximum number of files deleted per second.
+     */
+    public static final int DEFAULT_DELETES_PER_SECOND = 500;
+
+    /**
+     * The shortest retention vacuum accepts unless the retention check is disabled.
+     * Parquet writers buffer whole row groups before writing them, so the file of
+     * an insert that is still running can go a long time without being modified.
+     */
+    public static final Duration MIN_RETENTION = Duration.ofDays(7);
+
+    private final Path dataPath;
+    private final Path logPath;
+    private final int pageSize;
+    private final int threads;
+    private final DeleteRateLimiter rateLimiter;
+    private final ExecutorService workers;
+    private ScheduledExecutorService scheduler;
+    private boolean closed;
+    private volatile Throwable lastFailure;
+
+    /**
+     * Creates a cleaner for the table at the given path with default settings.
+     *
+     * @param tablePath the path of the table
+     */
+    public TableCleaner(String tablePath) {
+        this(tablePath, Runtime.getRuntime().availableProcessors(), DEFAULT_PAGE_SIZE, DEFAULT_DELETES_PER_SECOND);
+    }
+
+    /**
+     * Creates a cleaner for the table at the given path.
+     *
+     * @param tablePath the path of the table
+     * @param threads the number of threads checking and deleting files
+     * @param pageSize the number of directory entries handed to a thread at once
+     * @param deletesPerSecond the maximum number of files deleted per second
+     */
+    public TableCleaner(String tablePath, int threads, int pageSize, int deletesPerSecond) {
+        if (threads <= 0 || pageSize <= 0 || deletesPerSecond <= 0) {
+            throw new IllegalArgumentException("Threads, page size and delete rate must be positive");
+        }
+        this.dataPath = Paths.get(tablePath, "data");
+        this.logPath = Paths.get(tablePath, FileNames.LOG_DIRECTORY);
+        this.pageSize = pageSize;
+        this.threads = threads;
+        this.rateLimiter = new DeleteRateLimiter(deletesPerSecond);
+        this.workers = Executors.newFixedThreadPool(threads, daemonThreadFactory("table-cleaner-worker"));
+    }
+
+    /**
+     * Removes data files that are not part of the table and are older than the
+     * retention period, which must be at least {@link #MIN_RETENTION}.
+     *
+     * @param retention how long unreferenced files are kept
+     * @return the number of files deleted
+     * @throws IOException if an I/O error occurs
+     * @see #vacuum(Duration, boolean)
+     */
+    public int vacuum(Duration retention) throws IOException {
+        return vacuum(retention, true);
+    }
+
+    /**
+     * Removes data files that are not part of the table and are older than the
+     * retention period. Data files are written under temporary names and only
+     * renamed once the insert has written all of them, so the unreferenced files
+     * are the temporary files of inserts that never finished. Publishing a bulk
+     * insert renames its files one at a time, so if a crash interrupts it, vacuum
+     * removes the files still staged and the ones already renamed stay in the
+     * table. A retention shorter than
+     * {@link #MIN_RETENTION} can delete the files of inserts that are still
+     * running, and is only accepted if the retention check is disabled.
+     *
+     * @param retention how long unreferenced files are kept
+     * @param retentionCheckEnabled whether to reject retentions shorter than {@link #MIN_RETENTION}
+     * @return the number of files deleted
+     * @throws IOException if an I/O error occurs
+     */
+    public int vacuum(Duration retention, boolean retentionCheckEnabled) throws IOException {
+        checkRetention(retention, retentionCheckEnabled);
+        Instant cutoff = cutoff(retention);
+        return deleteMatching(dataPath, path ->
+                FileNames.isTempDataFile(path.getFileName().toString()) && isOlderThan(path, cutoff));
+    }
+
+    /**
+     * Removes log files covered by a checkpoint. Only the newest checkpoint older
+     * than the retention period is used, so the table can still be loaded at any
+     * version written within the retention period. Commits and checkpoints with
+     * lower versions than that checkpoint are deleted.
+     *
+     * @param retention how long log history is kept
+     * @return the number of files deleted
+     * @throws IOException if an I/O error occurs
+     */
+    public int expireLog(Duration retention) throws IOException {
+        if (!Files.isDirectory(logPath)) {
+            return 0;
+        }
+
+        // Find the newest checkpoint that is older than the retention period
+        Instant cutoff = cutoff(retention);
+        AtomicLong checkpointVersion = new AtomicLong(-1);
+        forEachPage(logPath, page -> {
+            for (Path path : page) {
+                String fileName = path.getFileName().toString();
+                if (FileNames.isCheckpointFile(fileName) && isOlderThan(path, cutoff)) {
+                    checkpointVersion.accumulateAndGet(FileNames.checkpointVersion(fileName), Math::max);
+                }
+            }
+            return 0;
+        });
+        if (checkpointVersion.get() < 0) {
+            return 0;
+        }
+
+        long expiredBefore = checkpointVersion.get();
+        return deleteMatching(logPath, path -> {
+            String fileName = path.getFileName().toString();
+            if (FileNames.isDeltaFile(fileName)) {
+                return FileNames.fileVersion(fileName) < expiredBefore;
+            }
+            if (FileNames.isCheckpointFile(fileName)) {
+                return FileNames.checkpointVersion(fileName) < expiredBefore;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Runs {@link #vacuum(Duration)} and {@link #expireLog(Duration)} in the background
+     * with the given delay between runs.
+     *
+     * @param interval the delay between cleanup runs
+     * @param retention how long unreferenced files and log history are kept
+     * @see #schedule(Duration, Duration, boolean)
+     */
+    public void schedule(Duration interval, Duration retention) {
+        schedule(interval, retention, true);
+    }
+
+    /**
+     * Runs {@link #vacuum(Duration, boolean)} and {@link #expireLog(Duration)} in the
+     * background with the given delay between runs. Each step runs even if the other
+     * fails, and a failed run does not stop later runs; the most recent failure is
+     * available from {@link #getLastFailure()}.
+     *
+     * @param interval the delay between cleanup runs
+     * @param retention how long unreferenced files and log history are kept
+     * @param retentionCheckEnabled whether to reject retentions shorter than {@link #MIN_RETENTION}
+     * @throws IllegalStateException if cleanup is already scheduled or the cleaner is closed
+     */
+    public synchronized void schedule(Duration interval, Duration retention, boolean retentionCheckEnabled) {
+        if (closed) {
+            throw new IllegalStateException("Cleaner is closed");
+        }
+        if (scheduler != null) {
+            throw new IllegalStateException("Cleanup is already scheduled");
+        }
+        if (interval == null || interval.toMillis() <= 0) {
+            throw new IllegalArgumentException("Interval must be positive: " + interval);
+        }
+        // Validate the retention up front rather than on every run
+        checkRetention(retention, retentionCheckEnabled);
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("table-cleaner-scheduler"));
+        scheduler.scheduleWithFixedDelay(() -> runCleanup(retention, retentionCheckEnabled),
+                interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the failure of the most recent background run that failed. If both
+     * steps of that run failed, the log expiry failure is attached to the vacuum
+     * failure as a suppressed exception.
+     *
+     * @return the failure, or null if no background run has failed
+     */
+    public Throwable getLastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * Stops background cleanup and releases the worker threads.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        workers.shutdownNow();
+    }
+
+    /**
+     * Runs one background cleanup, recording the failure of either step.
+     *
+     * @param retention how long unreferenced files and log history are kept
+     * @param retentionCheckEnabled whether to reject retentions shorter than {@link #MIN_RETENTION}
+     */
+    private void runCleanup(Duration retention, boolean retentionCheckEnabled) {
+        // Catch everything: anything escaping a scheduled task silently cancels all later runs
+        Throwable failure = null;
+        try {
+            vacuum(retention, retentionCheckEnabled);
+        } catch (Throwable e) {
+            failure = e;
+        }
+        try {
+            expireLog(retention);
+        } catch (Throwable e) {
+            if (failure == null) {
+                failure = e;
+            } else {
+                failure.addSuppressed(e);
+            }
+        }
+        if (failure != null) {
+            lastFailure = failure;
+        }
+    }
+
+    /**
+     * Lists a directory page by page and deletes the entries accepted by the filter.
+     * The filter runs on the worker threads, so file attribute lookups are done in
+     * parallel.
+     *
+     * @param directory the directory to clean
+     * @param filter decides which entries are deleted
+     * @return the number of files deleted
+     * @throws IOException if an I/O error occurs
+     */
+    private int deleteMatching(Path directory, DirectoryStream.Filter<Path> filter) throws IOException {
+        return forEachPage(directory, page -> {
+            int deleted = 0;
+            for (Path path : page) {
+                if (filter.accept(path)) {
+                    rateLimiter.acquire();
+                    if (Files.deleteIfExists(path)) {
+                        deleted++;
+                    }
+                }
+            }
+            return deleted;
+        });
+    }
+
+    /**
+     * Lists a directory page by page and runs the task for each page on the worker
+     * pool. Listing a single directory is inherently serial, so only the work on
+     * each entry is parallel. At most two pages per worker are in flight at any
+     * time, which bounds memory use regardless of the size of the directory.
+     *
+     * @param directory the directory to list
+     * @param task the work to run for each page
+     * @return the sum of the results of all pages
+     * @throws IOException if an I/O error occurs
+     */
+    private int forEachPage(Path directory, PageTask task) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+
+        Deque<Future<Integer>> pending = new ArrayDeque<>();
+        int total = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            List<Path> page = new ArrayList<>(pageSize);
+            for (Path path : stream) {
+                page.add(path);
+                if (page.size() == pageSize) {
+                    pending.add(submitPage(page, task));
+                    page = new ArrayList<>(pageSize);
+                    while (pending.size() >= threads * 2) {
+                        total += await(pending.poll());
+                    }
+                }
+            }
+            if (!page.isEmpty()) {
+                pending.add(submitPage(page, task));
+            }
+            while (!pending.isEmpty()) {
+                total += await(pending.poll());
+            }
+        } finally {
+            for (Future<Integer> future : pending) {
+                future.cancel(true);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Submits one page of directory entries to the worker pool.
+     *
+     * @param page the entries to process
+     * @param task the work to run for the page
+     * @return the result of the page
+     */
+    private Future<Integer> submitPage(List<Path> page, PageTask task) {
+        return workers.submit(() -> task.run(page));
+    }
+
+    /**
+     * Waits for a page to finish.
+     *
+     * @param future the page
+     * @return the number of files the page deleted
+     * @throws IOException if the page failed or the wait was interrupted
+     */
+    private static int await(Future<Integer> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while cleaning table", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Failed to clean table", e.getCause());
+        }
+    }
+
+    /**
+     * Checks whether a file was last modified before the cutoff.
+     *
+     * @param path the file
+     * @param cutoff the cutoff
+     * @return true if the file is older than the cutoff, false if it no longer exists
+     * @throws IOException if an I/O error occurs
+     */
+    private static boolean isOlderThan(Path path, Instant cutoff) throws IOException {
+        try {
+            return Files.getLastModifiedTime(path).toInstant().isBefore(cutoff);
+        } catch (NoSuchFileException e) {
+            // Published or removed by another writer since it was listed
+            return false;
+        }
+    }
+
+    /**
+     * Creates a factory for numbered cleaner threads that do not keep the JVM alive.
+     *
+     * @param name the name prefix of the threads
+     * @return the thread factory
+     */
+    private static ThreadFactory daemonThreadFactory(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Rejects retentions shorter than {@link #MIN_RETENTION} unless the check is disabled.
+     *
+     * @param retention the retention period
+     * @param retentionCheckEnabled whether the check is enabled
+     */
+    private static void checkRetention(Duration retention, boolean retentionCheckEnabled) {
+        cutoff(retention);
+        if (retentionCheckEnabled && retention.compareTo(MIN_RETENTION) < 0) {
+            throw new IllegalArgumentException("Retention " + retention + " is shorter than the minimum of "
+                    + MIN_RETENTION + " and may delete files of inserts still in progress;"
+                    + " disable the retention check to use it anyway");
+        }
+    }
+
+    /**
+     * Computes the point in time before which files fall outside the retention period.
+     *
+     * @param retention the retention period
+     * @return the cutoff
+     */
+    private static Instant cutoff(Duration retention) {
+        if (retention == null || retention.isNegative()) {
+            throw new IllegalArgumentException("Retention must not be negative: " + retention);
+        }
+        return Instant.now().minus(retention);
+    }
+
+    /**
+     * Work done on one page of directory entries.
+     */
+    private interface PageTask {
+
+        /**
+         * Processes a page of directory entries.
+         *
+         * @param page the entries
+         * @return a count that is summed over all pages
+         * @throws Exception if the page cannot be processed
+         */
+        int run(List<Path> page) throws Exception;
+    }
+
+    /**
+     * Spaces deletes evenly so that no more than a fixed number happen per second.
+     */
+    private static class DeleteRateLimiter {
+
+        private final long intervalNanos;
+        private long nextPermitNanos = System.nanoTime();
+
+        DeleteRateLimiter(int permitsPerSecond) {
+            this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+        }
+
+        /**
+         * Blocks until the next delete is allowed.
+         *
+         * @throws InterruptedException if interrupted while waiting
+         */
+        void acquire() throws InterruptedException {
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                waitNanos = Math.max(0, nextPermitNanos - now);
+                nextPermitNanos = Math.max(now, nextPermitNanos) + intervalNanos;
+            }
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        }
+    }
+}
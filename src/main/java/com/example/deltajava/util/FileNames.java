@@ -1,15 +1,38 @@
 package com.example.deltajava.util;
 
+import java.util.regex.Pattern;
+
 /**
  * Utility class for formatting file names in the Delta log.
  */
 public class FileNames {
     
+    /**
+     * The name of the directory holding the Delta log inside a table.
+     */
+    public static final String LOG_DIRECTORY = "_delta_log";
+    
     /**
      * The format for Delta log file names.
      */
     public static final String DELTA_FILE_FORMAT = "%020d.json";
     
+    /**
+     * The format for checkpoint file names.
+     */
+    public static final String CHECKPOINT_FILE_FORMAT = "%020d.checkpoint.parquet";
+    
+    /**
+     * The suffix of data files that are still being written.
+     */
+    public static final String TEMP_FILE_SUFFIX = ".tmp";
+    
+    private static final String CHECKPOINT_SUFFIX = ".checkpoint.parquet";
+    
+    private static final Pattern DELTA_FILE_PATTERN = Pattern.compile("\\d{20}\\.json");
+    
+    private static final Pattern CHECKPOINT_FILE_PATTERN = Pattern.compile("\\d{20}\\.checkpoint\\.parquet");
+    
     /**
      * Formats a version number into a Delta log file name.
      *
@@ -25,7 +48,8 @@ public class FileNames {
      *
      * @param fileName the file name
      * @return the version number
-     * @throws NumberFormatException if the file name is not a valid Delta log file name
+     * @throws IllegalArgumentException if the file name does not end with ".json"
+     * @throws NumberFormatException if the file name does not start with a valid version number
      */
     public static long fileVersion(String fileName) {
         if (!fileName.endsWith(".json")) {
@@ -33,4 +57,84 @@ public class FileNames {
         }
         return Long.parseLong(fileName.substring(0, fileName.length() - 5));
     }
+    
+    /**
+     * Formats a version number into a checkpoint file name.
+     *
+     * @param version the version number
+     * @return the formatted file name
+     */
+    public static String checkpointFile(long version) {
+        return String.format(CHECKPOINT_FILE_FORMAT, version);
+    }
+    
+    /**
+     * Parses a version number from a checkpoint file name.
+     *
+     * @param fileName the file name
+     * @return the version number
+     * @throws IllegalArgumentException if the file name does not end with ".checkpoint.parquet"
+     * @throws NumberFormatException if the file name does not start with a valid version number
+     */
+    public static long checkpointVersion(String fileName) {
+        if (!fileName.endsWith(CHECKPOINT_SUFFIX)) {
+            throw new IllegalArgumentException("Not a checkpoint file: " + fileName);
+        }
+        return Long.parseLong(fileName.substring(0, fileName.length() - CHECKPOINT_SUFFIX.length()));
+    }
+    
+    /**
+     * Checks whether a file name is a Delta log file name.
+     *
+     * @param fileName the file name
+     * @return true if the name was produced by {@link #deltaFile(long)}
+     */
+    public static boolean isDeltaFile(String fileName) {
+        return DELTA_FILE_PATTERN.matcher(fileName).matches();
+    }
+    
+    /**
+     * Checks whether a file name is a checkpoint file name.
+     *
+     * @param fileName the file name
+     * @return true if the name was produced by {@link #checkpointFile(long)}
+     */
+    public static boolean isCheckpointFile(String fileName) {
+        return CHECKPOINT_FILE_PATTERN.matcher(fileName).matches();
+    }
+    
+    /**
+     * Formats the name under which a data file is written before it is published.
+     *
+     * @param fileName the final data file name
+     * @return the temporary file name
+     */
+    public static String tempDataFile(String fileName) {
+        return fileName + TEMP_FILE_SUFFIX;
+    }
+    
+    /**
+     * Parses the final data file name from the name of a temporary data file.
+     *
+     * @param tempFileName the temporary file name
+     * @return the data file name it is published under
+     * @throws IllegalArgumentException if the file name is not a temporary data file name
+     */
+    public static String publishedDataFile(String tempFileName) {
+        if (!tempFileName.endsWith(TEMP_FILE_SUFFIX)) {
+            throw new IllegalArgumentException("Not a temporary data file: " + tempFileName);
+        }
+        return tempFileName.substring(0, tempFileName.length() - TEMP_FILE_SUFFIX.length());
+    }
+    
+    /**
+     * Checks whether a file name belongs to a data file that was never published,
+     * including the checksum file Hadoop writes next to it.
+     *
+     * @param fileName the file name
+     * @return true if the file is a temporary data file or its checksum
+     */
+    public static boolean isTempDataFile(String fileName) {
+        return fileName.endsWith(TEMP_FILE_SUFFIX) || fileName.endsWith(TEMP_FILE_SUFFIX + ".crc");
+    }
 } 
\ No newline at end of file
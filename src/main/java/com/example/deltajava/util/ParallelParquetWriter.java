@@ -0,0 +1,310 @@
+package com.example.deltajava.util;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.parquet.hadoop.ParquetWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes large batches of records as several Parquet files in parallel.
+ * The input is split into chunks of a target number of rows, and each chunk is
+ * written to its own file by a pool of writers. Within a chunk, conversion of
+ * records to Avro runs on a separate thread from Parquet encoding, compression
+ * and disk I/O, with a bounded queue of record batches between the two stages.
+ * Files are written under temporary names and only published once the whole
+ * batch has been written. Publishing renames the files one at a time, so it is
+ * not atomic: readers of the directory can see a batch while it is being
+ * published, and a process that dies part way through leaves some of the batch
+ * published. Committing a batch as one table version needs the transaction log.
+ */
+public class ParallelParquetWriter {
+
+    /**
+     * The default number of records written to each data file.
+     */
+    public static final int DEFAULT_ROWS_PER_FILE = 100_000;
+
+    /**
+     * The number of converted records handed from the conversion stage to the writer at once.
+     */
+    private static final int BATCH_SIZE = 1024;
+
+    /**
+     * The number of converted batches that may wait for the writer of a single file.
+     */
+    private static final int QUEUE_CAPACITY = 8;
+
+    /**
+     * Marks the end of a chunk in the queue between the conversion and writing stages.
+     */
+    private static final List<GenericRecord> END_OF_CHUNK = new ArrayList<>(0);
+
+    /**
+     * How long a failed write waits for each pool to stop before cleaning up.
+     */
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final int writerThreads;
+    private final int rowsPerFile;
+
+    /**
+     * Creates a new parallel writer.
+     *
+     * @param writerThreads the maximum number of files written concurrently
+     * @param rowsPerFile the target number of records in each file
+     */
+    public ParallelParquetWriter(int writerThreads, int rowsPerFile) {
+        if (writerThreads <= 0) {
+            throw new IllegalArgumentException("Writer threads must be positive: " + writerThreads);
+        }
+        if (rowsPerFile <= 0) {
+            throw new IllegalArgumentException("Rows per file must be positive: " + rowsPerFile);
+        }
+        this.writerThreads = writerThreads;
+        this.rowsPerFile = rowsPerFile;
+    }
+
+    /**
+     * Writes the records to new Parquet files in the given directory.
+     * The files are staged under temporary names and only published once every
+     * file of the batch has been written. See {@link #publish(List)} for what
+     * readers can see while the files are published.
+     *
+     * @param records the records to write
+     * @param directory the directory to create the files in
+     * @return the paths of the published files
+     * @throws IOException if an I/O error occurs
+     * @see #stage(List, Path)
+     * @see #publish(List)
+     */
+    public List<Path> write(List<Map<String, String>> records, Path directory) throws IOException {
+        return publish(stage(records, directory));
+    }
+
+    /**
+     * Writes the records to new temporary Parquet files in the given directory.
+     * All files share one schema built from the columns of the whole batch.
+     * If any file fails to be written, every file staged by this call is
+     * deleted before the exception is rethrown. Files left behind by a process
+     * that dies while staging keep their temporary names and are never mistaken
+     * for table data.
+     *
+     * @param records the records to write
+     * @param directory the directory to create the files in
+     * @return the paths of the staged files, named by {@link FileNames#tempDataFile(String)}
+     * @throws IOException if an I/O error occurs
+     */
+    public List<Path> stage(List<Map<String, String>> records, Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (records == null || records.isEmpty()) {
+            return files;
+        }
+
+        // Ensure the directory exists
+        Files.createDirectories(directory);
+
+        // Build one schema for every file of the batch
+        Schema schema = ParquetUtil.createRecordsSchema(ParquetUtil.extractColumnNames(records));
+
+        int chunks = (records.size() + rowsPerFile - 1) / rowsPerFile;
+        int threads = Math.min(writerThreads, chunks);
+        ExecutorService writers = Executors.newFixedThreadPool(threads);
+        ExecutorService converters = Executors.newFixedThreadPool(threads);
+
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int start = 0; start < records.size(); start += rowsPerFile) {
+                List<Map<String, String>> chunk = records.subList(start, Math.min(start + rowsPerFile, records.size()));
+                String fileName = String.format("part-%s.parquet", UUID.randomUUID());
+                Path file = directory.resolve(FileNames.tempDataFile(fileName));
+                files.add(file);
+                futures.add(writers.submit(() -> {
+                    writeChunk(chunk, schema, file, converters);
+                    return null;
+                }));
+            }
+
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+            return files;
+        } catch (InterruptedException e) {
+            IOException failure = new IOException("Interrupted while writing Parquet files", e);
+            rollback(writers, converters, files, failure);
+            Thread.currentThread().interrupt();
+            throw failure;
+        } catch (ExecutionException e) {
+            IOException failure = asIOException(e);
+            rollback(writers, converters, files, failure);
+            throw failure;
+        } finally {
+            writers.shutdown();
+            converters.shutdown();
+        }
+    }
+
+    /**
+     * Publishes staged files under their final names. The files are renamed one
+     * at a time and each becomes visible as soon as it is renamed, so publishing
+     * a batch is not atomic. If a rename fails, the files already published and
+     * the remaining staged files are deleted, although readers may already have
+     * seen the published ones. If the process dies while publishing, the files
+     * already renamed stay published and the rest stay staged until vacuum
+     * removes them.
+     *
+     * @param stagedFiles the files returned by {@link #stage(List, Path)}
+     * @return the paths of the published files
+     * @throws IOException if an I/O error occurs
+     */
+    public List<Path> publish(List<Path> stagedFiles) throws IOException {
+        List<Path> published = new ArrayList<>();
+        try {
+            for (Path stagedFile : stagedFiles) {
+                published.add(ParquetUtil.publish(stagedFile));
+            }
+            return published;
+        } catch (IOException e) {
+            List<Path> files = new ArrayList<>(published);
+            files.addAll(stagedFiles);
+            deleteAll(files, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Writes one chunk of records to a file. The records are converted on the
+     * converter pool while this thread encodes and writes the converted batches.
+     *
+     * @param chunk the records to write
+     * @param schema the Avro schema of the records
+     * @param file the file to write to
+     * @param converters the pool running the conversion stage
+     * @throws Exception if conversion or writing fails
+     */
+    private void writeChunk(List<Map<String, String>> chunk, Schema schema, Path file,
+                            ExecutorService converters) throws Exception {
+        BlockingQueue<List<GenericRecord>> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+        Future<?> conversion = converters.submit(() -> {
+            boolean cancelled = false;
+            try {
+                List<GenericRecord> batch = new ArrayList<>(BATCH_SIZE);
+                for (Map<String, String> record : chunk) {
+                    batch.add(ParquetUtil.convertMapToRecord(record, schema));
+                    if (batch.size() == BATCH_SIZE) {
+                        queue.put(batch);
+                        batch = new ArrayList<>(BATCH_SIZE);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    queue.put(batch);
+                }
+            } catch (InterruptedException e) {
+                // The writer failed and cancelled this stage; nobody drains the queue any more
+                cancelled = true;
+                throw e;
+            } finally {
+                // Release the writer, even if conversion failed
+                if (!cancelled) {
+                    queue.put(END_OF_CHUNK);
+                }
+            }
+            return null;
+        });
+
+        try (ParquetWriter<GenericRecord> writer = ParquetUtil.openWriter(file, schema)) {
+            List<GenericRecord> batch;
+            while ((batch = queue.take()) != END_OF_CHUNK) {
+                for (GenericRecord record : batch) {
+                    writer.write(record);
+                }
+            }
+        } catch (Exception e) {
+            // Stop the conversion stage if the writer failed before draining it
+            conversion.cancel(true);
+            throw e;
+        }
+
+        // Surface any failure from the conversion stage
+        conversion.get();
+    }
+
+    /**
+     * Stops all pending work and deletes the files staged so far. The files are
+     * only deleted once both pools have stopped, since a writer that is still
+     * running could recreate its file afterwards. If the pools do not stop in
+     * time, the files are left for vacuum and the failure says so.
+     *
+     * @param writers the writer pool
+     * @param converters the converter pool
+     * @param files the files to delete
+     * @param failure the failure being reported, which collects any cleanup problems
+     */
+    private static void rollback(ExecutorService writers, ExecutorService converters,
+                                 List<Path> files, IOException failure) {
+        writers.shutdownNow();
+        converters.shutdownNow();
+        boolean stopped;
+        try {
+            stopped = writers.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                    && converters.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopped = false;
+        }
+        if (!stopped) {
+            failure.addSuppressed(new IOException(
+                    "Parquet writers did not stop; staged files were not deleted: " + files));
+            return;
+        }
+        deleteAll(files, failure);
+    }
+
+    /**
+     * Deletes files and their checksums, recording any file that could not be deleted.
+     *
+     * @param files the files to delete
+     * @param failure the failure being reported, which collects any cleanup problems
+     */
+    private static void deleteAll(List<Path> files, IOException failure) {
+        for (Path file : files) {
+            try {
+                ParquetUtil.delete(file);
+            } catch (IOException e) {
+                failure.addSuppressed(e);
+            }
+        }
+    }
+
+    /**
+     * Unwraps the cause of a failed write into an IOException.
+     *
+     * @param e the execution exception
+     * @return the IOException to throw
+     */
+    private static IOException asIOException(ExecutionException e) {
+        Throwable cause = e.getCause();
+        // A writer reports conversion failures wrapped in another ExecutionException
+        while (cause instanceof ExecutionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        return new IOException("Failed to write Parquet file", cause);
+    }
+}
@@ -13,6 +13,7 @@ import org.apache.parquet.hadoop.ParquetWriter;
 import org.apache.parquet.hadoop.metadata.CompressionCodecName;
 
 import java.io.IOException;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -47,6 +48,30 @@ public class ParquetUtil {
         // Create an Avro schema for the records
         Schema schema = createRecordsSchema(columnNames);
         
+        // Initialize the Parquet writer
+        try (ParquetWriter<GenericRecord> writer = openWriter(filePath, schema)) {
+            
+            // Convert each record to an Avro record and write it
+            for (Map<String, String> record : records) {
+                GenericRecord avroRecord = convertMapToRecord(record, schema);
+                writer.write(avroRecord);
+            }
+        }
+        
+        // Return the file size
+        return java.nio.file.Files.size(filePath);
+    }
+    
+    /**
+     * Opens a Snappy-compressed Parquet writer for the given path, replacing any
+     * existing file at that location.
+     *
+     * @param filePath the path to write to
+     * @param schema the Avro schema of the records
+     * @return the writer
+     * @throws IOException if an I/O error occurs
+     */
+    static ParquetWriter<GenericRecord> openWriter(java.nio.file.Path filePath, Schema schema) throws IOException {
         // Create a Hadoop Path from the Java Path
         Path hadoopPath = new Path(filePath.toString());
         
@@ -62,23 +87,50 @@ public class ParquetUtil {
             fs.delete(hadoopPath, true);
         }
         
-        // Initialize the Parquet writer
-        try (ParquetWriter<GenericRecord> writer = AvroParquetWriter
+        return AvroParquetWriter
                 .<GenericRecord>builder(hadoopPath)
                 .withSchema(schema)
                 .withCompressionCodec(CompressionCodecName.SNAPPY)
                 .withConf(conf)
-                .build()) {
-            
-            // Convert each record to an Avro record and write it
-            for (Map<String, String> record : records) {
-                GenericRecord avroRecord = convertMapToRecord(record, schema);
-                writer.write(avroRecord);
-            }
-        }
-        
-        // Return the file size
-        return java.nio.file.Files.size(filePath);
+                .build();
+    }
+    
+    /**
+     * Publishes a completely written temporary data file under its final name.
+     * The checksum Hadoop wrote for the temporary file is removed, since it no
+     * longer matches any file.
+     *
+     * @param tempFilePath the temporary file, named by {@link FileNames#tempDataFile(String)}
+     * @return the path of the published data file
+     * @throws IOException if an I/O error occurs
+     */
+    public static java.nio.file.Path publish(java.nio.file.Path tempFilePath) throws IOException {
+        java.nio.file.Path dataFilePath = tempFilePath.resolveSibling(
+                FileNames.publishedDataFile(tempFilePath.getFileName().toString()));
+        java.nio.file.Files.move(tempFilePath, dataFilePath, StandardCopyOption.ATOMIC_MOVE);
+        java.nio.file.Files.deleteIfExists(checksumFile(tempFilePath));
+        return dataFilePath;
+    }
+    
+    /**
+     * Deletes a Parquet file together with the checksum file Hadoop writes next to it.
+     *
+     * @param filePath the file to delete
+     * @throws IOException if an I/O error occurs
+     */
+    public static void delete(java.nio.file.Path filePath) throws IOException {
+        java.nio.file.Files.deleteIfExists(filePath);
+        java.nio.file.Files.deleteIfExists(checksumFile(filePath));
+    }
+    
+    /**
+     * Returns the path of the checksum file Hadoop's local file system writes next to a file.
+     *
+     * @param filePath the file
+     * @return the checksum file
+     */
+    private static java.nio.file.Path checksumFile(java.nio.file.Path filePath) {
+        return filePath.resolveSibling("." + filePath.getFileName() + ".crc");
     }
     
     /**
@@ -120,7 +172,7 @@ public class ParquetUtil {
      * @param columnNames the list of column names
      * @return the schema
      */
-    private static Schema createRecordsSchema(List<String> columnNames) {
+    static Schema createRecordsSchema(List<String> columnNames) {
         StringBuilder fieldsJson = new StringBuilder();
         
         for (int i = 0; i < columnNames.size(); i++) {
@@ -152,7 +204,7 @@ public class ParquetUtil {
      * @param schema the Avro schema to use
      * @return the record
      */
-    private static GenericRecord convertMapToRecord(Map<String, String> map, Schema schema) {
+    static GenericRecord convertMapToRecord(Map<String, String> map, Schema schema) {
         GenericRecord record = new GenericData.Record(schema);
         
         for (Schema.Field field : schema.getFields()) {
@@ -194,7 +246,7 @@ public class ParquetUtil {
      * @param records the records to extract column names from
      * @return a list of column names
      */
-    private static List<String> extractColumnNames(List<Map<String, String>> records) {
+    static List<String> extractColumnNames(List<Map<String, String>> records) {
         return records.stream()
                 .flatMap(record -> record.keySet().stream())
                 .distinct()
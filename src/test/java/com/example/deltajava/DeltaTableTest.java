@@ -1,5 +1,7 @@
 package com.example.deltajava;
 
+import com.example.deltajava.util.ParallelParquetWriter;
+import com.example.deltajava.util.ParquetUtil;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -8,6 +10,9 @@ import org.junit.jupiter.api.io.TempDir;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -110,6 +115,93 @@ public class DeltaTableTest {
         }
     }
     
+    @Test
+    void testInsertLargeBatchSplitsIntoFiles() throws IOException {
+        int count = ParallelParquetWriter.DEFAULT_ROWS_PER_FILE + 1;
+        
+        int inserted = deltaTable.insert(createTestRecords(count));
+        
+        assertEquals(count, inserted, "Should have inserted all records");
+        assertDataFiles(2, count);
+    }
+    
+    @Test
+    void testBulkInsertWritesAllRecords() throws IOException {
+        int count = ParallelParquetWriter.DEFAULT_ROWS_PER_FILE + 1;
+        
+        int inserted = deltaTable.bulkInsert(createTestRecords(count));
+        
+        assertEquals(count, inserted, "Should have inserted all records");
+        assertDataFiles(2, count);
+    }
+    
+    @Test
+    void testVacuumKeepsInsertedFiles() throws IOException {
+        deltaTable.insert(createTestRecords(5));
+        
+        // Simulate a write that never completed
+        Path dataDir = Path.of(tablePath, "data");
+        Path orphan = Files.createFile(dataDir.resolve("part-orphan.parquet.tmp"));
+        Files.setLastModifiedTime(orphan, FileTime.from(Instant.now().minus(Duration.ofDays(8))));
+        
+        int deleted = deltaTable.vacuum(Duration.ofDays(7));
+        
+        assertEquals(1, deleted, "Should delete the unfinished file");
+        List<Path> remaining = Files.list(dataDir).collect(Collectors.toList());
+        assertEquals(1, remaining.size(), "Only the inserted data file should remain");
+        assertTrue(remaining.get(0).toString().endsWith(".parquet"), "Inserted data file should be kept");
+    }
+    
+    @Test
+    void testVacuumReclaimsAbandonedBulkLoad() throws IOException {
+        // A bulk load that stopped after writing its files but before publishing them
+        Path dataDir = Path.of(tablePath, "data");
+        List<Path> staged = new ParallelParquetWriter(2, 5).stage(createTestRecords(10), dataDir);
+        assertEquals(2, staged.size(), "Should have staged two files");
+        
+        List<Path> leftovers = Files.list(dataDir).collect(Collectors.toList());
+        for (Path leftover : leftovers) {
+            Files.setLastModifiedTime(leftover, FileTime.from(Instant.now().minus(Duration.ofDays(8))));
+        }
+        
+        int deleted = deltaTable.vacuum(Duration.ofDays(7));
+        
+        assertEquals(leftovers.size(), deleted, "Should delete every file of the abandoned load");
+        assertEquals(0, Files.list(dataDir).count(), "Data directory should be empty");
+    }
+    
+    @Test
+    void testScheduleCleanupRejectsShortRetention() {
+        assertThrows(IllegalArgumentException.class,
+                () -> deltaTable.scheduleCleanup(Duration.ofMinutes(1), Duration.ofHours(1)),
+                "Retention below the minimum should be rejected");
+    }
+    
+    /**
+     * Checks that the data directory holds the expected published files and records,
+     * and no temporary files.
+     *
+     * @param fileCount the expected number of data files
+     * @param recordCount the expected number of records across all data files
+     * @throws IOException if an I/O error occurs
+     */
+    private void assertDataFiles(int fileCount, int recordCount) throws IOException {
+        Path dataDir = Path.of(tablePath, "data");
+        List<Path> files = Files.list(dataDir).collect(Collectors.toList());
+        List<Path> dataFiles = files.stream()
+                .filter(path -> path.toString().endsWith(".parquet"))
+                .collect(Collectors.toList());
+        assertEquals(fileCount, dataFiles.size(), "Should have " + fileCount + " data files");
+        assertTrue(files.stream().noneMatch(path -> path.toString().contains(".tmp")),
+                "No temporary files should remain");
+        
+        int records = 0;
+        for (Path dataFile : dataFiles) {
+            records += ParquetUtil.readRecords(dataFile).size();
+        }
+        assertEquals(recordCount, records, "Data files should hold all records");
+    }
+    
     /**
      * Creates a list of test records with sequential IDs.
      *
@@ -0,0 +1,144 @@
+package com.example.deltajava;
+
+import com.example.deltajava.util.FileNames;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the TableCleaner class.
+ */
+public class TableCleanerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path dataDir;
+    private Path logDir;
+    private TableCleaner cleaner;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dataDir = Files.createDirectories(tempDir.resolve("data"));
+        logDir = Files.createDirectories(tempDir.resolve(FileNames.LOG_DIRECTORY));
+        // Small pages so that listing spans several pages
+        cleaner = new TableCleaner(tempDir.toString(), 2, 2, 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleaner.close();
+    }
+
+    @Test
+    void testVacuumRemovesOnlyStaleTempFiles() throws IOException {
+        Path published = createFile(dataDir, "part-a.parquet", Duration.ofDays(10));
+        Path staleTemp = createFile(dataDir, FileNames.tempDataFile("part-b.parquet"), Duration.ofDays(10));
+        Path staleChecksum = createFile(dataDir, "." + FileNames.tempDataFile("part-b.parquet") + ".crc", Duration.ofDays(10));
+        Path freshTemp = createFile(dataDir, FileNames.tempDataFile("part-c.parquet"), Duration.ZERO);
+
+        int deleted = cleaner.vacuum(Duration.ofDays(7));
+
+        assertEquals(2, deleted, "Should delete the stale temp file and its checksum");
+        assertTrue(Files.exists(published), "Published files should be kept");
+        assertFalse(Files.exists(staleTemp), "Stale temp file should be deleted");
+        assertFalse(Files.exists(staleChecksum), "Stale checksum should be deleted");
+        assertTrue(Files.exists(freshTemp), "Temp files within retention should be kept");
+    }
+
+    @Test
+    void testVacuumRejectsShortRetentionUnlessOverridden() throws IOException {
+        Path staleTemp = createFile(dataDir, FileNames.tempDataFile("part-a.parquet"), Duration.ofHours(2));
+
+        assertThrows(IllegalArgumentException.class, () -> cleaner.vacuum(Duration.ofHours(1)),
+                "Retention below the minimum should be rejected");
+        assertTrue(Files.exists(staleTemp), "Rejected vacuum should delete nothing");
+
+        assertEquals(1, cleaner.vacuum(Duration.ofHours(1), false), "Override should allow short retention");
+        assertFalse(Files.exists(staleTemp), "Stale temp file should be deleted");
+    }
+
+    @Test
+    void testScheduleRejectsShortRetentionAndClosedCleaner() {
+        assertThrows(IllegalArgumentException.class,
+                () -> cleaner.schedule(Duration.ofMillis(10), Duration.ofMinutes(1)),
+                "Retention below the minimum should be rejected");
+
+        cleaner.close();
+
+        assertThrows(IllegalStateException.class,
+                () -> cleaner.schedule(Duration.ofMillis(10), Duration.ofDays(7)),
+                "A closed cleaner should not schedule cleanup");
+    }
+
+    @Test
+    void testExpireLogRemovesCommitsCoveredByCheckpoint() throws IOException {
+        for (long version = 0; version <= 5; version++) {
+            createFile(logDir, FileNames.deltaFile(version), Duration.ofDays(10));
+        }
+        createFile(logDir, FileNames.checkpointFile(2), Duration.ofDays(10));
+        createFile(logDir, FileNames.checkpointFile(4), Duration.ofDays(10));
+
+        int deleted = cleaner.expireLog(Duration.ofDays(7));
+
+        // Commits 0-3 and checkpoint 2 are covered by checkpoint 4
+        assertEquals(5, deleted, "Should delete commits and checkpoints before version 4");
+        for (long version = 0; version < 4; version++) {
+            assertFalse(Files.exists(logDir.resolve(FileNames.deltaFile(version))), "Commit should be deleted: " + version);
+        }
+        assertFalse(Files.exists(logDir.resolve(FileNames.checkpointFile(2))), "Old checkpoint should be deleted");
+        assertTrue(Files.exists(logDir.resolve(FileNames.checkpointFile(4))), "Latest checkpoint should be kept");
+        assertTrue(Files.exists(logDir.resolve(FileNames.deltaFile(4))), "Commit 4 should be kept");
+        assertTrue(Files.exists(logDir.resolve(FileNames.deltaFile(5))), "Commit 5 should be kept");
+    }
+
+    @Test
+    void testExpireLogKeepsHistoryWithinRetention() throws IOException {
+        for (long version = 0; version <= 3; version++) {
+            createFile(logDir, FileNames.deltaFile(version), Duration.ZERO);
+        }
+        createFile(logDir, FileNames.checkpointFile(2), Duration.ZERO);
+
+        assertEquals(0, cleaner.expireLog(Duration.ofDays(7)), "Recent checkpoints should not expire commits");
+        assertTrue(Files.exists(logDir.resolve(FileNames.deltaFile(0))), "Commit 0 should be kept");
+    }
+
+    @Test
+    void testScheduledCleanupRunsInBackground() throws Exception {
+        Path staleTemp = createFile(dataDir, FileNames.tempDataFile("part-a.parquet"), Duration.ofDays(10));
+
+        cleaner.schedule(Duration.ofMillis(10), Duration.ofDays(7));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (Files.exists(staleTemp) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(Files.exists(staleTemp), "Background cleanup should delete stale temp file");
+        assertNull(cleaner.getLastFailure(), "Background cleanup should not fail");
+    }
+
+    /**
+     * Creates an empty file last modified the given amount of time ago.
+     *
+     * @param directory the directory to create the file in
+     * @param fileName the name of the file
+     * @param age how long ago the file was last modified
+     * @return the path of the file
+     * @throws IOException if an I/O error occurs
+     */
+    private Path createFile(Path directory, String fileName, Duration age) throws IOException {
+        Path path = Files.createFile(directory.resolve(fileName));
+        Files.setLastModifiedTime(path, FileTime.from(Instant.now().minus(age)));
+        return path;
+    }
+}
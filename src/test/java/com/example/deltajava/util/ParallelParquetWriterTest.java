@@ -0,0 +1,140 @@
+package com.example.deltajava.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the ParallelParquetWriter class.
+ */
+public class ParallelParquetWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSplitsRecordsIntoFiles() throws IOException {
+        List<Map<String, String>> records = createTestRecords(2500);
+
+        ParallelParquetWriter writer = new ParallelParquetWriter(4, 1000);
+        List<Path> files = writer.write(records, tempDir);
+
+        // 2500 records at 1000 records per file need three files
+        assertEquals(3, files.size(), "Should have written three files");
+        for (Path file : files) {
+            assertTrue(Files.exists(file), "File should exist: " + file);
+        }
+
+        // Every record should be read back exactly once
+        Set<String> ids = new HashSet<>();
+        for (Path file : files) {
+            for (Map<String, String> record : ParquetUtil.readRecords(file)) {
+                assertTrue(ids.add(record.get("id")), "Duplicate record: " + record);
+                assertEquals("Name" + record.get("id"), record.get("name"));
+            }
+        }
+        assertEquals(2500, ids.size(), "Should read back all records");
+        assertTrue(listFiles(tempDir).stream().noneMatch(path -> path.toString().contains(".tmp")),
+                "No temporary files should remain after publishing");
+    }
+
+    @Test
+    void testStagedFilesAreNotPublished() throws IOException {
+        ParallelParquetWriter writer = new ParallelParquetWriter(2, 1000);
+        List<Path> staged = writer.stage(createTestRecords(1500), tempDir);
+
+        assertEquals(2, staged.size(), "Should have staged two files");
+        assertTrue(listFiles(tempDir).stream().noneMatch(path -> path.toString().endsWith(".parquet")),
+                "Staged files should not look like data files");
+
+        List<Path> published = writer.publish(staged);
+
+        assertEquals(2, published.size(), "Should have published two files");
+        List<Path> remaining = listFiles(tempDir);
+        assertTrue(remaining.containsAll(published), "Published files should exist");
+        assertEquals(2, remaining.stream().filter(path -> !path.getFileName().toString().startsWith(".")).count(),
+                "Only the published files should remain");
+        assertTrue(remaining.stream().noneMatch(path -> path.toString().contains(".tmp")),
+                "Staged files and their checksums should be gone");
+    }
+
+    @Test
+    void testFailedChunkDeletesAllFiles() throws IOException {
+        List<Map<String, String>> records = createTestRecords(2500);
+        // A record in the second chunk that cannot be converted
+        Map<String, String> broken = new HashMap<>(records.get(1500)) {
+            @Override
+            public String get(Object key) {
+                throw new IllegalStateException("Cannot read record");
+            }
+        };
+        records.set(1500, broken);
+
+        ParallelParquetWriter writer = new ParallelParquetWriter(4, 1000);
+
+        IOException e = assertThrows(IOException.class, () -> writer.write(records, tempDir));
+        assertTrue(e.getCause() instanceof IllegalStateException, "Should report the conversion failure");
+        assertTrue(listFiles(tempDir).isEmpty(), "No files of the batch should remain: " + listFiles(tempDir));
+    }
+
+    @Test
+    void testUnwritableDirectoryFails() throws IOException {
+        // A regular file where the directory should be
+        Path notADirectory = Files.createFile(tempDir.resolve("data"));
+
+        ParallelParquetWriter writer = new ParallelParquetWriter(2, 1000);
+
+        assertThrows(IOException.class, () -> writer.write(createTestRecords(1500), notADirectory));
+        assertEquals(List.of(notADirectory), listFiles(tempDir), "No files should be created");
+    }
+
+    @Test
+    void testEmptyRecordsWriteNothing() throws IOException {
+        ParallelParquetWriter writer = new ParallelParquetWriter(2, 1000);
+
+        assertTrue(writer.write(new ArrayList<>(), tempDir).isEmpty(), "Should write no files");
+
+        assertTrue(listFiles(tempDir).isEmpty(), "Directory should contain no files");
+    }
+
+    /**
+     * Lists the files in a directory.
+     *
+     * @param directory the directory to list
+     * @return the files in the directory
+     * @throws IOException if an I/O error occurs
+     */
+    private List<Path> listFiles(Path directory) throws IOException {
+        try (Stream<Path> stream = Files.list(directory)) {
+            return stream.collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Creates a list of test records with sequential IDs.
+     *
+     * @param count the number of records to create
+     * @return a list of test records
+     */
+    private List<Map<String, String>> createTestRecords(int count) {
+        List<Map<String, String>> records = new ArrayList<>();
+
+        for (int id = 0; id < count; id++) {
+            Map<String, String> record = new HashMap<>();
+            record.put("id", String.valueOf(id));
+            record.put("name", "Name" + id);
+
+            records.add(record);
+        }
+
+        return records;
+    }
+}